@@ -2,182 +2,292 @@ package bstmap;
 
 import java.util.*;
 
+/**
+ * A Map61B backed by an AVL tree: after every put and remove, the heights of
+ * each node's two subtrees differ by at most one, so the tree stays
+ * O(log n) tall even when keys arrive in sorted order. Insertion and
+ * deletion walk the tree iteratively, using parent links to rebalance on
+ * the way back up, so they never recurse deeply.
+ */
 public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
     // The above line uses Java's bounded type parameter: extends Comparable<K>
     private BSTNode root;
     private int size;
+    /** Number of structural changes (adding or removing keys), so that
+     *  iterators can detect changes made behind their backs. */
+    private int modCount;
+    /** Live view of the keys, see keySet(). */
     private final Set<K> setOfKeys;
 
     public BSTMap() {
         root = null;
         size = 0;
-        setOfKeys = new HashSet<>();
+        setOfKeys = new KeySet();
     }
 
     private class BSTNode {
         public K key;
         public V value;
-        public BSTNode left, right;
+        public BSTNode left, right, parent;
+        /** Number of nodes on the longest path from here down to a leaf. */
+        public int height;
 
-        public BSTNode() {
-            key = null;
-            value = null;
-            left = null;
-            right = null;
-        }
-
-        public BSTNode(K k, V v) {
+        public BSTNode(K k, V v, BSTNode p) {
             key = k;
             value = v;
             left = null;
             right = null;
+            parent = p;
+            height = 1;
         }
     }
 
     @Override
     public void clear() {
-        root = clearHelper(root);
+        root = null;
         size = 0;
+        modCount += 1;
     }
 
-    private BSTNode clearHelper(BSTNode node) {
-        if (node == null) {
-            return node;
-        }
-        node.left = clearHelper(node.left);
-        node.right = clearHelper(node.right);
-        node = null;
-        return node;
+    @Override
+    public boolean containsKey(K key) {
+        return findNode(key) != null;
     }
 
     @Override
-    public boolean containsKey(K key) {
-        return containsKeyHelper(key, root);
+    public V get(K key) {
+        BSTNode node = findNode(key);
+        return node == null ? null : node.value;
     }
 
-    private boolean containsKeyHelper(K key, BSTNode node) {
-        if (node == null) {
-            return false;
-        }
-        // do not use == for comparison, use .equals instead!!!
-        return key.equals(node.key)
-                || containsKeyHelper(key, node.left)
-                || containsKeyHelper(key, node.right);
+    @Override
+    public int size() {
+        return size;
     }
 
     @Override
-    public V get(K key) {
-        if (!containsKey(key)) {
-            return null;
+    public void put(K key, V value) {
+        if (root == null) {
+            root = new BSTNode(key, value, null);
+            size = 1;
+            modCount += 1;
+            return;
+        }
+        BSTNode node = root;
+        while (true) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                node.value = value;
+                return;
+            }
+            BSTNode next = cmp < 0 ? node.left : node.right;
+            if (next == null) {
+                BSTNode child = new BSTNode(key, value, node);
+                if (cmp < 0) {
+                    node.left = child;
+                } else {
+                    node.right = child;
+                }
+                size += 1;
+                modCount += 1;
+                rebalanceUpFrom(node);
+                return;
+            }
+            node = next;
         }
-        return getHelper(key, root);
     }
 
-    private V getHelper(K key, BSTNode node) {
-        if (node == null) {
-            return null;
+    /** Returns the height of the tree: 0 if empty, and O(log n) always. */
+    public int height() {
+        return height(root);
+    }
+
+    private int height(BSTNode node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private void updateHeight(BSTNode node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+    }
+
+    /**
+     * Restores heights and the AVL balance condition on every node from
+     * node up to the root, after a node below it was added or removed.
+     */
+    private void rebalanceUpFrom(BSTNode node) {
+        while (node != null) {
+            updateHeight(node);
+            node = balance(node);
+            node = node.parent;
         }
-        int cmp = key.compareTo(node.key);
-        if (cmp == 0) {
-            return node.value;
-        } else if (cmp < 0) {
-            return getHelper(key, node.left);
-        } else {
-            return getHelper(key, node.right);
+    }
+
+    /**
+     * Rotates the subtree rooted at node if its two sides differ in height
+     * by more than one, and returns the (possibly new) root of the subtree.
+     */
+    private BSTNode balance(BSTNode node) {
+        int difference = height(node.left) - height(node.right);
+        if (difference > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        } else if (difference < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                rotateRight(node.right);
+            }
+            return rotateLeft(node);
         }
+        return node;
     }
 
-    @Override
-    public int size() {
-        return size;
+    /** Makes node's right child the root of its subtree, and returns it. */
+    private BSTNode rotateLeft(BSTNode node) {
+        BSTNode r = node.right;
+        node.right = r.left;
+        if (r.left != null) {
+            r.left.parent = node;
+        }
+        replaceChild(node.parent, node, r);
+        r.left = node;
+        node.parent = r;
+        updateHeight(node);
+        updateHeight(r);
+        return r;
     }
 
-    @Override
-    public void put(K key, V value) {
-        if (!containsKey(key)) {
-            root = putHelper(key, value, root);
-            size += 1;
+    /** Makes node's left child the root of its subtree, and returns it. */
+    private BSTNode rotateRight(BSTNode node) {
+        BSTNode l = node.left;
+        node.left = l.right;
+        if (l.right != null) {
+            l.right.parent = node;
         }
+        replaceChild(node.parent, node, l);
+        l.right = node;
+        node.parent = l;
+        updateHeight(node);
+        updateHeight(l);
+        return l;
     }
 
-    private BSTNode putHelper(K key, V value, BSTNode node) {
-        if (node == null) {
-            node = new BSTNode(key, value);
-        } else if (key.compareTo(node.key) < 0) {
-            node.left = putHelper(key, value, node.left);
+    /** Puts replacement where child used to hang below parent (or at the root). */
+    private void replaceChild(BSTNode parent, BSTNode child, BSTNode replacement) {
+        if (replacement != null) {
+            replacement.parent = parent;
+        }
+        if (parent == null) {
+            root = replacement;
+        } else if (parent.left == child) {
+            parent.left = replacement;
         } else {
-            node.right = putHelper(key, value, node.right);
+            parent.right = replacement;
         }
-        return node;
     }
 
+    /**
+     * Returns a live view of the keys, in increasing order. The view
+     * reflects later changes to this map, and removing a key from it
+     * removes that key's mapping.
+     */
     @Override
     public Set<K> keySet() {
-        extractKey(root);
         return setOfKeys;
     }
 
-    private void extractKey(BSTNode node) {
-        if (node == null) {
-            return;
+    private class KeySet extends AbstractSet<K> {
+        @Override
+        public Iterator<K> iterator() {
+            return BSTMap.this.iterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            try {
+                return o != null && containsKey((K) o);
+            } catch (ClassCastException e) {
+                return false;
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean remove(Object o) {
+            if (!contains(o)) {
+                return false;
+            }
+            BSTMap.this.remove((K) o);
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            BSTMap.this.clear();
         }
-        setOfKeys.add(node.key);
-        extractKey(node.left);
-        extractKey(node.right);
     }
 
     @Override
     public V remove(K key) {
-        // Inspired by https://math.oxford.emory.edu/site/cs171/hibbardDeletion/
-        // and https://algs4.cs.princeton.edu/32bst/BST.java.html
-        if (!containsKey(key)) {
+        BSTNode node = findNode(key);
+        if (node == null) {
             return null;
         }
-        V returnValue = get(key);
-        delete(key);
+        V returnValue = node.value;
+        delete(node);
         size -= 1;
+        modCount += 1;
         return returnValue;
     }
 
     @Override
     public V remove(K key, V value) {
-        if (!containsKey(key) || get(key) != value) {
+        BSTNode node = findNode(key);
+        if (node == null || node.value != value) {
             return null;
         }
-        return remove(key);
+        delete(node);
+        size -= 1;
+        modCount += 1;
+        return value;
     }
 
-    private void delete(K key) {
-        // Inspired by https://math.oxford.emory.edu/site/cs171/hibbardDeletion/
-        // and https://algs4.cs.princeton.edu/32bst/BST.java.html
-        root = deleteHelper(root, key);
+    /** Returns the node holding key, or null if there is none. */
+    private BSTNode findNode(K key) {
+        BSTNode node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                return node;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
     }
 
-    /** Delete the successor of the node with Key = key in the BST. */
-    private BSTNode deleteHelper(BSTNode n, K key) {
+    /**
+     * Unlinks node from the tree and rebalances. A node with two children
+     * takes over its successor's entry, and the successor, which has no
+     * left child, is unlinked instead (Hibbard deletion).
+     */
+    private void delete(BSTNode node) {
         // Inspired by https://math.oxford.emory.edu/site/cs171/hibbardDeletion/
         // and https://algs4.cs.princeton.edu/32bst/BST.java.html
-        if (n == null) {
-            return n;
-        }
-        int cmp = key.compareTo(n.key);
-        if (cmp < 0) {
-            n.left = deleteHelper(n.left, key);
-        } else if (cmp > 0) {
-            n.right = deleteHelper(n.right, key);
-        } else {
-            if (n.right == null) {
-                return n.left;
-            }
-            if (n.left  == null) {
-                return n.right;
-            }
-            BSTNode t = n;
-            n = min(t.right);
-            n.right = deleteMin(t.right);
-            n.left = t.left;
+        if (node.left != null && node.right != null) {
+            BSTNode successor = min(node.right);
+            node.key = successor.key;
+            node.value = successor.value;
+            node = successor;
         }
-        return n;
+        BSTNode child = node.left != null ? node.left : node.right;
+        replaceChild(node.parent, node, child);
+        rebalanceUpFrom(node.parent);
     }
 
     private BSTNode min(BSTNode node) {
@@ -188,42 +298,89 @@ public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
         return t;
     }
 
-    /** Delete the min-key node in the subtree of n*/
-    private BSTNode deleteMin(BSTNode n) {
-        // Inspired by https://math.oxford.emory.edu/site/cs171/hibbardDeletion/
-        // and https://algs4.cs.princeton.edu/32bst/BST.java.html
-        if (n.left == null) {
-            return n.right; // current node is the min
-        }
-        // there are nodes smaller than the current node (and they are to the left)
-        n.left = deleteMin(n.left);
-        return n;
-    }
-
     @Override
     public Iterator<K> iterator() {
         return new BSTMapIterator();
     }
 
+    /**
+     * Iterates over the keys in increasing order without copying them: the
+     * stack holds the nodes whose keys are still to come, each above its
+     * ancestors, so it never holds more than height() nodes. Fails fast
+     * with ConcurrentModificationException if the map changes other than
+     * through remove().
+     */
     private class BSTMapIterator implements Iterator<K> {
-        private int wizPos;
-        private final List<K> listOfKeys;
+        private final Deque<BSTNode> stack;
+        private int expectedModCount;
+        /** Key last returned by next(), or null if remove() may not be called. */
+        private K lastKey;
+
         BSTMapIterator() {
-            extractKey(root);
-            listOfKeys = new ArrayList<>(setOfKeys);
-            wizPos = 0;
+            stack = new ArrayDeque<>();
+            expectedModCount = modCount;
+            pushLeftSpine(root);
+        }
+
+        /** Pushes node and its chain of left descendants. */
+        private void pushLeftSpine(BSTNode node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+
+        /**
+         * Rebuilds the stack to hold the path to the keys after key. Needed
+         * after a removal, since Hibbard deletion may have moved the next
+         * key into a node that is not on the stack.
+         */
+        private void seekAfter(K key) {
+            stack.clear();
+            BSTNode node = root;
+            while (node != null) {
+                if (key.compareTo(node.key) < 0) {
+                    stack.push(node);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
         }
 
         @Override
         public boolean hasNext() {
-            return wizPos < setOfKeys.size();
+            return !stack.isEmpty();
         }
 
         @Override
         public K next() {
-            K key = listOfKeys.get(wizPos);
-            wizPos += 1;
-            return key;
+            checkForComodification();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BSTNode node = stack.pop();
+            pushLeftSpine(node.right);
+            lastKey = node.key;
+            return lastKey;
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            BSTMap.this.remove(lastKey);
+            expectedModCount = modCount;
+            seekAfter(lastKey);
+            lastKey = null;
         }
     }
 
@@ -0,0 +1,82 @@
+package bstmap;
+
+import java.util.TreeMap;
+import java.io.IOException;
+import java.util.Random;
+import java.util.Scanner;
+
+import edu.princeton.cs.algs4.Stopwatch;
+
+/**
+ * Times random get calls and a full in-order iteration over a BSTMap,
+ * compared with Java's TreeMap. Both maps hold the same N random Strings
+ * of length L as <String, Integer> pairs.
+ */
+public class GetIterateSpeedTest {
+    /**
+     * Requests user input and times gets and iteration on each map.
+     * ARGS is unused.
+     */
+    public static void main(String[] args) throws IOException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("This program puts random Strings of length L "
+                + "into maps as <String, Integer> pairs, then times N random "
+                + "gets and one full iteration.");
+        System.out.print("Please enter desired length of each string: ");
+        int L = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # strings to insert into the maps: ");
+            int N = InsertRandomSpeedTest.waitForPositiveInt(input);
+            String[] keys = new String[N];
+            BSTMap<String, Integer> bstMap = new BSTMap<>();
+            TreeMap<String, Integer> treeMap = new TreeMap<>();
+            for (int i = 0; i < N; i++) {
+                keys[i] = StringUtils.randomString(L);
+                bstMap.put(keys[i], i);
+                treeMap.put(keys[i], i);
+            }
+            Random r = new Random(61);
+            int[] order = new int[N];
+            for (int i = 0; i < N; i++) {
+                order[i] = r.nextInt(N);
+            }
+
+            Stopwatch sw = new Stopwatch();
+            long found = 0;
+            for (int i : order) {
+                found += bstMap.get(keys[i]) != null ? 1 : 0;
+            }
+            double bstGet = sw.elapsedTime();
+            sw = new Stopwatch();
+            long count = 0;
+            for (String key : bstMap) {
+                count += key.length() > 0 ? 1 : 0;
+            }
+            double bstIterate = sw.elapsedTime();
+            System.out.printf("class bstmap.BSTMap: %d gets %.2f sec, "
+                    + "iterating %d keys %.2f sec\n", found, bstGet, count, bstIterate);
+
+            sw = new Stopwatch();
+            found = 0;
+            for (int i : order) {
+                found += treeMap.get(keys[i]) != null ? 1 : 0;
+            }
+            double treeGet = sw.elapsedTime();
+            sw = new Stopwatch();
+            count = 0;
+            for (String key : treeMap.keySet()) {
+                count += key.length() > 0 ? 1 : 0;
+            }
+            double treeIterate = sw.elapsedTime();
+            System.out.printf("Java's Built-in TreeMap: %d gets %.2f sec, "
+                    + "iterating %d keys %.2f sec\n", found, treeGet, count, treeIterate);
+
+            System.out.print("Would you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+}
@@ -15,6 +15,12 @@ import edu.princeton.cs.algs4.Stopwatch;
  * @author Brendan Hu
  */
 public class InsertInOrderSpeedTest {
+    /**
+     * ULLMap takes quadratic time on this test, so it is skipped above this
+     * many strings.
+     */
+    private static final int ULLMAP_LIMIT = 100000;
+
     /**
      * Requests user input and performs tests of three different set
      * implementations. ARGS is unused.
@@ -31,8 +37,15 @@ public class InsertInOrderSpeedTest {
         do {
             System.out.print("\nEnter # strings to insert into the maps: ");
             int N = i.waitForPositiveInt(input);
-            timeInOrderMap61B(new ULLMap<>(), N);
-            timeInOrderMap61B(new BSTMap<>(), N);
+            if (N <= ULLMAP_LIMIT) {
+                timeInOrderMap61B(new ULLMap<>(), N);
+            } else {
+                System.out.println("class bstmap.ULLMap: skipped for more than "
+                        + ULLMAP_LIMIT + " strings");
+            }
+            BSTMap<String, Integer> bstMap = new BSTMap<>();
+            timeInOrderMap61B(bstMap, N);
+            System.out.println("BSTMap height: " + bstMap.height());
             timeInOrderTreeMap(new TreeMap<>(), N);
             timeInOrderHashMap(new HashMap<>(), N);
 
@@ -87,7 +100,8 @@ public class InsertInOrderSpeedTest {
     public static void timeInOrderMap61B(Map61B<String, Integer> map, int N) {
         try {
             double mapTime = insertInOrder(map, N);
-            System.out.printf(map.getClass() + ": %.2f sec\n", mapTime);
+            System.out.printf(map.getClass() + ": %.2f sec, %.0f ops/sec\n",
+                    mapTime, N / mapTime);
         } catch (StackOverflowError e) {
             printInfoOnStackOverflow(N);
         } catch (RuntimeException e) {
@@ -103,7 +117,8 @@ public class InsertInOrderSpeedTest {
     public static void timeInOrderTreeMap(TreeMap<String, Integer> treeMap, int N) {
         try {
             double javaTime = insertInOrder(treeMap, N);
-            System.out.printf("Java's Built-in TreeMap: %.2f sec\n", javaTime);
+            System.out.printf("Java's Built-in TreeMap: %.2f sec, %.0f ops/sec\n",
+                    javaTime, N / javaTime);
         } catch (StackOverflowError e) {
             printInfoOnStackOverflow(N);
         } catch (RuntimeException e) {
@@ -119,7 +134,8 @@ public class InsertInOrderSpeedTest {
     public static void timeInOrderHashMap(HashMap<String, Integer> hashMap, int N) {
         try {
             double javaTime = insertInOrder(hashMap, N);
-            System.out.printf("Java's Built-in HashMap: %.2f sec\n", javaTime);
+            System.out.printf("Java's Built-in HashMap: %.2f sec, %.0f ops/sec\n",
+                    javaTime, N / javaTime);
         } catch (StackOverflowError e) {
             printInfoOnStackOverflow(N);
         } catch (RuntimeException e) {
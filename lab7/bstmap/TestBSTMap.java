@@ -3,7 +3,9 @@ package bstmap;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
+import java.util.Random;
 import java.util.Set;
+import java.util.TreeMap;
 
 /** Tests by Brendan Hu, Spring 2015, revised for 2016 by Josh Hug */
 public class TestBSTMap {
@@ -196,4 +198,49 @@ public class TestBSTMap {
         b3.remove(8, 80);
         b3.printInOrder();
     }
+
+    @Test
+    public void putUpdatesValueTest() {
+        BSTMap<String, Integer> b = new BSTMap<>();
+        b.put("hi", 1);
+        b.put("hi", 2);
+        assertEquals(1, b.size());
+        assertEquals(2, (int) b.get("hi"));
+    }
+
+    @Test
+    public void sortedInsertStaysBalancedTest() {
+        BSTMap<Integer, Integer> b = new BSTMap<>();
+        int n = 100000;
+        for (int i = 0; i < n; i++) {
+            b.put(i, i);
+        }
+        assertEquals(n, b.size());
+        // An AVL tree with n nodes is at most about 1.44 * log2(n) tall.
+        assertTrue(b.height() <= 1.45 * Math.log(n + 2) / Math.log(2));
+        for (int i = 0; i < n; i += 2) {
+            assertEquals(i, (int) b.remove(i));
+        }
+        assertEquals(n / 2, b.size());
+        assertTrue(b.height() <= 1.45 * Math.log(n / 2 + 2) / Math.log(2));
+    }
+
+    @Test
+    public void randomizedAgainstTreeMapTest() {
+        Random r = new Random(61);
+        BSTMap<Integer, Integer> b = new BSTMap<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 20000; i++) {
+            int key = r.nextInt(500);
+            if (r.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), b.remove(key));
+            } else {
+                b.put(key, i);
+                expected.put(key, i);
+            }
+            assertEquals(expected.size(), b.size());
+            assertEquals(expected.get(key), b.get(key));
+        }
+        assertEquals(expected.keySet(), b.keySet());
+    }
 }
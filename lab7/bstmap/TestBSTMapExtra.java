@@ -1,7 +1,14 @@
 package bstmap;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.TreeSet;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
@@ -113,4 +120,163 @@ public class TestBSTMapExtra {
         assertEquals(null, noChild.get('Z'));
     }
 
+    /* Iteration visits keys in increasing order. */
+    @Test
+    public void iteratesInOrderTest() {
+        BSTMap<String, Integer> b = new BSTMap<>();
+        String[] keys = {"orange", "apple", "watermelon", "banana", "strawberry"};
+        for (String key : keys) {
+            b.put(key, key.length());
+        }
+        List<String> iterated = new ArrayList<>();
+        for (String key : b) {
+            iterated.add(key);
+        }
+        Arrays.sort(keys);
+        assertEquals(Arrays.asList(keys), iterated);
+        Iterator<String> iter = new BSTMap<String, Integer>().iterator();
+        assertFalse(iter.hasNext());
+    }
+
+    /* keySet is a live view of the map. */
+    @Test
+    public void keySetIsLiveTest() {
+        BSTMap<String, Integer> b = new BSTMap<>();
+        Set<String> keys = b.keySet();
+        b.put("a", 1);
+        b.put("b", 2);
+        assertEquals(2, keys.size());
+        assertTrue(keys.contains("a"));
+        b.remove("a");
+        assertFalse(keys.contains("a"));
+        assertEquals(1, keys.size());
+        assertTrue(keys.remove("b"));
+        assertFalse(b.containsKey("b"));
+        assertEquals(0, b.size());
+        assertFalse(keys.contains(42));
+    }
+
+    @Test
+    public void iteratorRemoveTest() {
+        BSTMap<Integer, Integer> b = new BSTMap<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            b.put(i, i);
+            if (i % 2 == 1) {
+                expected.add(i);
+            }
+        }
+        /* Most removed keys have two children, so their successors move. */
+        List<Integer> seen = new ArrayList<>();
+        Iterator<Integer> it = b.iterator();
+        while (it.hasNext()) {
+            int key = it.next();
+            seen.add(key);
+            if (key % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(1000, seen.size());
+        assertEquals(500, b.size());
+        List<Integer> keys = new ArrayList<>();
+        for (int key : b) {
+            keys.add(key);
+        }
+        assertEquals(expected, keys);
+
+        it = b.iterator();
+        while (it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+        assertEquals(0, b.size());
+        assertFalse(b.iterator().hasNext());
+    }
+
+    @Test
+    public void iteratorRemoveNeedsNextTest() {
+        BSTMap<String, Integer> b = new BSTMap<>();
+        b.put("a", 1);
+        Iterator<String> it = b.iterator();
+        try {
+            it.remove();
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        it.next();
+        it.remove();
+        try {
+            it.remove();
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void iteratorFailsFastTest() {
+        BSTMap<String, Integer> b = new BSTMap<>();
+        b.put("a", 1);
+        b.put("b", 2);
+        Iterator<String> it = b.iterator();
+        it.next();
+        b.put("a", 3);
+        assertEquals("b", it.next());
+
+        it = b.iterator();
+        it.next();
+        b.put("c", 3);
+        try {
+            it.next();
+            fail();
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+
+        it = b.iterator();
+        it.next();
+        b.remove("c");
+        try {
+            it.remove();
+            fail();
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void keySetBulkRemoveTest() {
+        Random r = new Random(61);
+        BSTMap<Integer, Integer> b = new BSTMap<>();
+        Set<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 2000; i++) {
+            int key = r.nextInt(5000);
+            b.put(key, i);
+            expected.add(key);
+        }
+        Set<Integer> keys = b.keySet();
+
+        assertTrue(keys.removeIf(k -> k % 3 == 0));
+        expected.removeIf(k -> k % 3 == 0);
+        assertEquals(expected, keys);
+
+        Set<Integer> keep = new HashSet<>();
+        for (int i = 0; i < 5000; i += 2) {
+            keep.add(i);
+        }
+        assertTrue(keys.retainAll(keep));
+        expected.retainAll(keep);
+        assertEquals(expected, keys);
+
+        Set<Integer> drop = new HashSet<>();
+        for (int i = 0; i < 5000; i += 5) {
+            drop.add(i);
+        }
+        assertTrue(keys.removeAll(drop));
+        expected.removeAll(drop);
+        assertEquals(expected, keys);
+        assertEquals(expected.size(), b.size());
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(keys));
+    }
 }
@@ -0,0 +1,332 @@
+package hashmap;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ *  A thread-safe hash table-backed Map implementation, safe to share
+ *  between threads without outside locking.
+ *
+ *  The table is split into segments by the high bits of each key's hash.
+ *  Every segment has its own lock and its own array of node chains, so
+ *  put() and remove() only lock the segment they touch (lock striping).
+ *  get() and containsKey() take no lock at all: chain heads are published
+ *  through an AtomicReferenceArray and node links and values are volatile,
+ *  so a reader always walks a well-formed chain.
+ *
+ *  Each segment grows on its own, under its own lock, by copying its
+ *  chains into a new array and then publishing it. Writers to other
+ *  segments keep going during the resize, and readers of the segment keep
+ *  using the old array until the new one is ready.
+ *
+ *  keySet() and iterator() are weakly consistent snapshots: they reflect
+ *  some state of each segment during the call. Removing through the
+ *  iterator removes the key from the map.
+ *
+ *  Assumes null keys will never be inserted, and does not resize down upon remove().
+ *  @author Colin Mufan
+ */
+public class ConcurrentMyHashMap<K, V> implements Map61B<K, V> {
+
+    /** A key/value pair in a bucket chain. */
+    private static class Node<K, V> {
+        final K key;
+        final int hash;
+        volatile V value;
+        volatile Node<K, V> next;
+
+        Node(K key, int hash, V value, Node<K, V> next) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /** One lock-protected part of the table. */
+    private static class Segment<K, V> {
+        /** Guards every change to this segment. */
+        final ReentrantLock lock = new ReentrantLock();
+        /** Bucket chains; replaced wholesale (never modified) by a resize. */
+        volatile AtomicReferenceArray<Node<K, V>> table;
+        /** Number of entries; written only while holding the lock. */
+        volatile int count;
+        /** Resize once count exceeds this. */
+        int threshold;
+        final double loadFactor;
+
+        Segment(int tableSize, double loadFactor) {
+            this.loadFactor = loadFactor;
+            setTable(new AtomicReferenceArray<>(tableSize));
+        }
+
+        void setTable(AtomicReferenceArray<Node<K, V>> newTable) {
+            threshold = (int) (newTable.length() * loadFactor);
+            table = newTable;
+        }
+
+        /** Returns the node for key (with hash h), or null. Takes no lock. */
+        Node<K, V> find(Object key, int h) {
+            AtomicReferenceArray<Node<K, V>> tab = table;
+            Node<K, V> n = tab.get(h & (tab.length() - 1));
+            while (n != null) {
+                if (n.hash == h && key.equals(n.key)) {
+                    return n;
+                }
+                n = n.next;
+            }
+            return null;
+        }
+
+        void put(K key, int h, V value) {
+            lock.lock();
+            try {
+                Node<K, V> n = find(key, h);
+                if (n != null) {
+                    n.value = value;
+                    return;
+                }
+                if (count + 1 > threshold) {
+                    resize();
+                }
+                AtomicReferenceArray<Node<K, V>> tab = table;
+                int index = h & (tab.length() - 1);
+                tab.set(index, new Node<>(key, h, value, tab.get(index)));
+                count = count + 1;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Removes the node for key and returns its value. If matchValue is
+         * true, the node is only removed if its value is value. Returns null
+         * if nothing is removed.
+         */
+        V remove(Object key, int h, V value, boolean matchValue) {
+            lock.lock();
+            try {
+                AtomicReferenceArray<Node<K, V>> tab = table;
+                int index = h & (tab.length() - 1);
+                Node<K, V> prev = null;
+                Node<K, V> n = tab.get(index);
+                while (n != null && !(n.hash == h && key.equals(n.key))) {
+                    prev = n;
+                    n = n.next;
+                }
+                if (n == null || (matchValue && n.value != value)) {
+                    return null;
+                }
+                if (prev == null) {
+                    tab.set(index, n.next);
+                } else {
+                    prev.next = n.next;
+                }
+                count = count - 1;
+                return n.value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Doubles the table. Nodes are copied rather than relinked, so that
+         * readers still walking the old table see its chains unchanged.
+         * Must be called while holding the lock.
+         */
+        void resize() {
+            AtomicReferenceArray<Node<K, V>> oldTable = table;
+            AtomicReferenceArray<Node<K, V>> newTable =
+                    new AtomicReferenceArray<>(oldTable.length() * 2);
+            int mask = newTable.length() - 1;
+            for (int i = 0; i < oldTable.length(); i++) {
+                for (Node<K, V> n = oldTable.get(i); n != null; n = n.next) {
+                    int index = n.hash & mask;
+                    newTable.set(index, new Node<>(n.key, n.hash, n.value, newTable.get(index)));
+                }
+            }
+            setTable(newTable);
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                setTable(new AtomicReferenceArray<>(table.length()));
+                count = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** Adds every key of this segment to keys. Takes no lock. */
+        void collectKeys(Set<K> keys) {
+            AtomicReferenceArray<Node<K, V>> tab = table;
+            for (int i = 0; i < tab.length(); i++) {
+                for (Node<K, V> n = tab.get(i); n != null; n = n.next) {
+                    keys.add(n.key);
+                }
+            }
+        }
+    }
+
+    /* Instance Variables */
+    private final Segment<K, V>[] segments;
+    /** Right shift that leaves the segment number in the high hash bits. */
+    private final int segmentShift;
+
+    /** Constructors */
+    public ConcurrentMyHashMap() {
+        this(16, 0.75, 16);
+    }
+
+    public ConcurrentMyHashMap(int initialSize) {
+        this(initialSize, 0.75, 16);
+    }
+
+    public ConcurrentMyHashMap(int initialSize, double maxLoad) {
+        this(initialSize, maxLoad, 16);
+    }
+
+    /**
+     * ConcurrentMyHashMap constructor that creates backing arrays with a
+     * total of at least initialSize buckets, split over concurrencyLevel
+     * segments (both rounded up to powers of two).
+     * The load factor (# items / # buckets) should always be <= loadFactor
+     *
+     * @param initialSize initial total size of the backing arrays, at most 2^30
+     * @param maxLoad maximum load factor
+     * @param concurrencyLevel number of writers expected to run at once, at most 2^30
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentMyHashMap(int initialSize, double maxLoad, int concurrencyLevel) {
+        int numSegments = powerOfTwoAtLeast(concurrencyLevel);
+        int segmentSize = powerOfTwoAtLeast(
+                (int) (((long) initialSize + numSegments - 1) / numSegments));
+        segments = new Segment[numSegments];
+        for (int i = 0; i < numSegments; i++) {
+            segments[i] = new Segment<>(segmentSize, maxLoad);
+        }
+        segmentShift = 32 - Integer.numberOfTrailingZeros(numSegments);
+    }
+
+    /** Largest table or segment count; doubling it would overflow an int. */
+    private static final int MAX_POWER_OF_TWO = 1 << 30;
+
+    /** Returns the smallest power of two that is >= n and >= 1. */
+    private static int powerOfTwoAtLeast(int n) {
+        if (n > MAX_POWER_OF_TWO) {
+            throw new IllegalArgumentException(
+                    "initialSize and concurrencyLevel must be at most 2^30");
+        }
+        int size = 1;
+        while (size < n) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    /**
+     * Returns a well-mixed hash of key: the high bits pick the segment and
+     * the low bits pick the bucket within it.
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private Segment<K, V> segmentFor(int h) {
+        /* Shifting an int by 32 is a no-op in Java, so one segment needs care. */
+        return segments.length == 1 ? segments[0] : segments[h >>> segmentShift];
+    }
+
+    @Override
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        int h = hash(key);
+        return segmentFor(h).find(key, h) != null;
+    }
+
+    @Override
+    public V get(K key) {
+        int h = hash(key);
+        Node<K, V> n = segmentFor(h).find(key, h);
+        return n == null ? null : n.value;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        int h = hash(key);
+        segmentFor(h).put(key, h, value);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> keys = new HashSet<>();
+        for (Segment<K, V> segment : segments) {
+            segment.collectKeys(keys);
+        }
+        return keys;
+    }
+
+    @Override
+    public V remove(K key) {
+        int h = hash(key);
+        return segmentFor(h).remove(key, h, null, false);
+    }
+
+    @Override
+    public V remove(K key, V value) {
+        int h = hash(key);
+        return segmentFor(h).remove(key, h, value, true);
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new SnapshotIterator();
+    }
+
+    /**
+     * Iterates over a keySet() snapshot. remove() removes the last key
+     * returned from the map itself, not just from the snapshot.
+     */
+    private class SnapshotIterator implements Iterator<K> {
+        private final Iterator<K> keys = keySet().iterator();
+        private K lastKey;
+
+        @Override
+        public boolean hasNext() {
+            return keys.hasNext();
+        }
+
+        @Override
+        public K next() {
+            lastKey = keys.next();
+            return lastKey;
+        }
+
+        @Override
+        public void remove() {
+            /* Throws IllegalStateException if next() has not been called. */
+            keys.remove();
+            ConcurrentMyHashMap.this.remove(lastKey);
+        }
+    }
+}
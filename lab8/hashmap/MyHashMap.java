@@ -26,32 +26,27 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
 
     /* Instance Variables */
     private Collection<Node>[] buckets;
-    private int initialSize;
+    /**
+     * During an incremental resize, the previous, smaller table whose
+     * entries are still being moved into buckets; null otherwise.
+     */
+    private Collection<Node>[] oldBuckets;
+    /** Buckets of oldBuckets below this index have already been moved. */
+    private int migrated;
     private int numElements;
     private final double loadFactor;
-    private final HashSet<K> keySet;
+    private final boolean incrementalResize;
+
+    /** Number of old buckets moved per update during an incremental resize. */
+    private static final int MIGRATE_STEP = 4;
 
     /** Constructors */
     public MyHashMap() {
-        this.initialSize = 16; // default value
-        this.loadFactor = 0.75; // default value
-        this.numElements = 0;
-        this.keySet = new HashSet<>();
-        buckets = new Collection[initialSize];
-        for (int i = 0; i < initialSize; i++) {
-            buckets[i] = createBucket();
-        }
+        this(16, 0.75);
     }
 
     public MyHashMap(int initialSize) {
-        this.initialSize = initialSize; // default value
-        this.loadFactor = 0.75; // default value
-        this.numElements = 0;
-        this.keySet = new HashSet<>();
-        buckets = new Collection[initialSize];
-        for (int i = 0; i < initialSize; i++) {
-            buckets[i] = createBucket();
-        }
+        this(initialSize, 0.75);
     }
 
     /**
@@ -62,14 +57,25 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
      * @param maxLoad maximum load factor
      */
     public MyHashMap(int initialSize, double maxLoad) {
-        this.initialSize = initialSize;
+        this(initialSize, maxLoad, false);
+    }
+
+    /**
+     * MyHashMap constructor that creates a backing array of initialSize.
+     * If incrementalResize is true, growing the table does not rehash every
+     * entry at once: the old table is kept alongside the new one and a few
+     * of its buckets are moved over on each later update, so no single
+     * put() pays for the whole resize.
+     *
+     * @param initialSize initial size of backing array
+     * @param maxLoad maximum load factor
+     * @param incrementalResize whether to spread resizes across updates
+     */
+    public MyHashMap(int initialSize, double maxLoad, boolean incrementalResize) {
         this.loadFactor = maxLoad;
+        this.incrementalResize = incrementalResize;
         this.numElements = 0;
-        this.keySet = new HashSet<>();
-        buckets = new Collection[initialSize];
-        for (int i = 0; i < initialSize; i++) {
-            buckets[i] = createBucket();
-        }
+        buckets = createTable(Math.max(initialSize, 1));
     }
 
     /**
@@ -108,59 +114,89 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
      * BE SURE TO CALL THIS FACTORY METHOD WHEN CREATING A TABLE SO
      * THAT ALL BUCKET TYPES ARE OF JAVA.UTIL.COLLECTION
      *
+     * Slots start out null and get a bucket from createBucket() when the
+     * first node is added to them, so growing the table does not have to
+     * allocate every bucket up front. A null slot is an empty bucket.
+     *
      * @param tableSize the size of the table to create
      */
     private Collection<Node>[] createTable(int tableSize) {
-        Collection<Node>[] newBuckets = new Collection[tableSize];
-        for (int i = 0; i < tableSize; i++) {
-            newBuckets[i] = createBucket();
-        }
-        int initialSizeCopy = initialSize;
-        initialSize = tableSize;
-        for (int i = 0; i < initialSizeCopy; i++) {
-            for (Node n: buckets[i]) {
-                int newBucketIndex = getBucketIndex(n.key);
-                newBuckets[newBucketIndex].add(n);
-            }
+        return new Collection[tableSize];
+    }
+
+    /** Adds node n to the bucket of table where its key belongs. */
+    private void addNode(Collection<Node>[] table, Node n) {
+        int index = getBucketIndex(n.key, table.length);
+        if (table[index] == null) {
+            table[index] = createBucket();
         }
-        return newBuckets;
+        table[index].add(n);
     }
 
     @Override
     public void clear() {
-        for (int i = 0; i < initialSize; i++) {
-            buckets[i].clear();
-        }
+        buckets = createTable(buckets.length);
+        oldBuckets = null;
         numElements = 0;
     }
 
-    private int getBucketIndex(K key) {
+    private int getBucketIndex(K key, int tableSize) {
         int hashcode = key.hashCode();
-        return Math.floorMod(hashcode, this.initialSize);
+        return Math.floorMod(hashcode, tableSize);
     }
 
-    @Override
-    public boolean containsKey(K key) {
-        int bucketIndex = getBucketIndex(key);
-        for (Node n: buckets[bucketIndex]) {
-            if (key.equals(n.key)) {
-                return true;
+    /**
+     * Returns the node for key, or null if there is none. Does not change
+     * the table, so it is safe to call while iterating.
+     */
+    private Node findNode(K key) {
+        if (oldBuckets != null) {
+            int oldIndex = getBucketIndex(key, oldBuckets.length);
+            if (oldIndex >= migrated && oldBuckets[oldIndex] != null) {
+                return findNode(oldBuckets[oldIndex], key);
             }
         }
-        return false;
+        return findNode(buckets[getBucketIndex(key, buckets.length)], key);
     }
 
-    @Override
-    public V get(K key) {
-        V value = null;
-        int bucketIndex = getBucketIndex(key);
-        for (Node n: buckets[bucketIndex]) {
+    /**
+     * Returns the index of the bucket in which key belongs, for an update.
+     * If an incremental resize has not yet reached key's old bucket, that
+     * whole bucket is moved over first, so the update only looks in one
+     * bucket.
+     */
+    private int getBucketIndexForUpdate(K key) {
+        if (oldBuckets != null) {
+            int oldIndex = getBucketIndex(key, oldBuckets.length);
+            if (oldIndex >= migrated) {
+                migrateBucket(oldIndex);
+            }
+        }
+        return getBucketIndex(key, buckets.length);
+    }
+
+    /** Returns the node for key in bucket, or null if there is none. */
+    private Node findNode(Collection<Node> bucket, K key) {
+        if (bucket == null) {
+            return null;
+        }
+        for (Node n: bucket) {
             if (key.equals(n.key)) {
-                value = n.value;
-                break;
+                return n;
             }
         }
-        return value;
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return findNode(key) != null;
+    }
+
+    @Override
+    public V get(K key) {
+        Node n = findNode(key);
+        return n == null ? null : n.value;
     }
 
     @Override
@@ -168,64 +204,174 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
         return numElements;
     }
 
-    private boolean needToResize(int numElements, int size){
-        return numElements * 1.0 / size > this.loadFactor;
+    private boolean needToResize() {
+        return numElements > loadFactor * buckets.length;
     }
 
     @Override
     public void put(K key, V value) {
-        int bucketIndex = getBucketIndex(key);
-        if (!containsKey(key)) {
-            keySet.add(key);
-            Node n = createNode(key, value);
-            buckets[bucketIndex].add(n);
-            numElements += 1;
+        advanceResize(MIGRATE_STEP);
+        int index = getBucketIndexForUpdate(key);
+        Node n = findNode(buckets[index], key);
+        if (n != null) {
+            n.value = value;
+            return;
+        }
+        if (buckets[index] == null) {
+            buckets[index] = createBucket();
+        }
+        buckets[index].add(createNode(key, value));
+        numElements += 1;
+        if (needToResize()) {
+            resize(buckets.length * 2);
+        }
+    }
+
+    /**
+     * Grows the table to tableSize buckets. Without incremental resizing,
+     * every entry is rehashed now; otherwise the current table becomes
+     * oldBuckets and is drained by later updates.
+     */
+    private void resize(int tableSize) {
+        advanceResize(Integer.MAX_VALUE);
+        Collection<Node>[] newBuckets = createTable(tableSize);
+        if (incrementalResize) {
+            oldBuckets = buckets;
+            migrated = 0;
+            buckets = newBuckets;
         } else {
-            for (Node n: buckets[bucketIndex]) {
-                if (key.equals(n.key)) {
-                    n.value = value;
-                    break;
+            for (Collection<Node> bucket : buckets) {
+                if (bucket != null) {
+                    for (Node n : bucket) {
+                        addNode(newBuckets, n);
+                    }
                 }
             }
+            buckets = newBuckets;
         }
-        if (needToResize(numElements, size())) {
-            buckets = createTable(size() * 2);
+    }
+
+    /** Moves up to count more old buckets over, if a resize is in progress. */
+    private void advanceResize(int count) {
+        while (oldBuckets != null && count > 0) {
+            migrateBucket(migrated);
+            migrated += 1;
+            count -= 1;
+            if (migrated == oldBuckets.length) {
+                oldBuckets = null;
+            }
+        }
+    }
+
+    /** Moves every node of oldBuckets[index] into buckets. */
+    private void migrateBucket(int index) {
+        if (oldBuckets[index] != null) {
+            for (Node n : oldBuckets[index]) {
+                addNode(buckets, n);
+            }
+            oldBuckets[index] = null;
         }
     }
 
     @Override
     public Set<K> keySet() {
-        return keySet;
+        Set<K> keys = new HashSet<>();
+        for (K key : this) {
+            keys.add(key);
+        }
+        return keys;
     }
 
     @Override
     public V remove(K key) {
-        V value = null;
-        if (containsKey(key)) {
-            int bucketIndex = getBucketIndex(key);
-            for (Node n : buckets[bucketIndex]) {
-                if (key.equals(n.key)) {
-                    value = n.value;
-                    buckets[bucketIndex].remove(n);
-                    break;
-                }
-            }
-            numElements -= 1;
-            keySet.remove(key);
-        }
-        return value;
+        advanceResize(MIGRATE_STEP);
+        return removeNode(buckets[getBucketIndexForUpdate(key)], key, null, false);
     }
 
     @Override
     public V remove(K key, V value) {
-        if (get(key) == value) {
-            return remove(key);
+        advanceResize(MIGRATE_STEP);
+        return removeNode(buckets[getBucketIndexForUpdate(key)], key, value, true);
+    }
+
+    /**
+     * Removes the node for key from bucket and returns its value, in a
+     * single pass over the bucket. If matchValue is true, the node is only
+     * removed if its value is value. Returns null if nothing is removed.
+     */
+    private V removeNode(Collection<Node> bucket, K key, V value, boolean matchValue) {
+        if (bucket == null) {
+            return null;
+        }
+        Iterator<Node> iter = bucket.iterator();
+        while (iter.hasNext()) {
+            Node n = iter.next();
+            if (key.equals(n.key)) {
+                if (matchValue && n.value != value) {
+                    return null;
+                }
+                iter.remove();
+                numElements -= 1;
+                return n.value;
+            }
         }
         return null;
     }
 
     @Override
     public Iterator<K> iterator() {
-        return keySet.iterator();
+        return new MyHashMapIterator();
+    }
+
+    /** Iterates over the keys of oldBuckets (if any) and then buckets. */
+    private class MyHashMapIterator implements Iterator<K> {
+        /** Table being walked; oldBuckets first while a resize is under way. */
+        private Collection<Node>[] table;
+        /** Table to walk once table is done, or null if there is none. */
+        private Collection<Node>[] nextTable;
+        private int bucketIndex;
+        private Iterator<Node> nodes;
+
+        MyHashMapIterator() {
+            if (oldBuckets == null) {
+                table = buckets;
+                nextTable = null;
+            } else {
+                table = oldBuckets;
+                nextTable = buckets;
+            }
+            bucketIndex = 0;
+            nodes = nodesIn(table[0]);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!nodes.hasNext()) {
+                if (bucketIndex + 1 < table.length) {
+                    bucketIndex += 1;
+                } else if (nextTable != null) {
+                    table = nextTable;
+                    nextTable = null;
+                    bucketIndex = 0;
+                } else {
+                    return false;
+                }
+                nodes = nodesIn(table[bucketIndex]);
+            }
+            return true;
+        }
+
+        /** Returns an iterator over bucket, which may be null (empty). */
+        private Iterator<Node> nodesIn(Collection<Node> bucket) {
+            return bucket == null ? Collections.emptyIterator() : bucket.iterator();
+        }
+
+        @Override
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return nodes.next().key;
+        }
     }
 }
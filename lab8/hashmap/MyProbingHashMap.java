@@ -0,0 +1,260 @@
+package hashmap;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ *  An open-addressing hash table-backed Map implementation. Entries live
+ *  directly in parallel key/value/hash arrays and collisions are resolved by
+ *  linear probing, so no per-entry Node or bucket collection is allocated.
+ *  Removal uses backward-shift deletion, so no tombstones are left behind.
+ *
+ *  Assumes null keys will never be inserted, and does not resize down upon remove().
+ *  @author Colin Mufan
+ */
+public class MyProbingHashMap<K, V> implements Map61B<K, V> {
+
+    /* Instance Variables */
+    private Object[] keys;
+    private Object[] values;
+    /** Cached (spread) hash code of the key in each occupied slot. */
+    private int[] hashes;
+    /** keys.length - 1; keys.length is always a power of two. */
+    private int mask;
+    private int numElements;
+    /** Resize once numElements exceeds this. */
+    private int threshold;
+    private final double loadFactor;
+
+    /** Constructors */
+    public MyProbingHashMap() {
+        this(16, 0.75);
+    }
+
+    public MyProbingHashMap(int initialSize) {
+        this(initialSize, 0.75);
+    }
+
+    /**
+     * MyProbingHashMap constructor that creates backing arrays of at least
+     * initialSize slots (rounded up to a power of two).
+     * The load factor (# items / # slots) should always be <= loadFactor
+     *
+     * @param initialSize initial size of backing arrays, at most 2^30
+     * @param maxLoad maximum load factor, which must be in (0, 1)
+     */
+    public MyProbingHashMap(int initialSize, double maxLoad) {
+        if (maxLoad <= 0 || maxLoad >= 1) {
+            throw new IllegalArgumentException("maxLoad must be in (0, 1)");
+        }
+        this.loadFactor = maxLoad;
+        createTable(tableSizeFor(initialSize));
+    }
+
+    /** Largest table size; doubling it would overflow an int. */
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+
+    /** Returns the smallest power of two that is >= n and >= 2. */
+    private static int tableSizeFor(int n) {
+        if (n > MAX_TABLE_SIZE) {
+            throw new IllegalArgumentException("initialSize must be at most 2^30");
+        }
+        int size = 2;
+        while (size < n) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    /** Replaces the backing arrays by empty arrays of tableSize slots. */
+    private void createTable(int tableSize) {
+        keys = new Object[tableSize];
+        values = new Object[tableSize];
+        hashes = new int[tableSize];
+        mask = tableSize - 1;
+        threshold = Math.min((int) (tableSize * loadFactor), tableSize - 1);
+    }
+
+    /**
+     * Returns the hash code of key with its high bits folded into the low
+     * bits, since only the low bits select a slot.
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the slot holding key, whose spread hash is h, or, if key is
+     * absent, -1 - (the empty slot where it would be inserted).
+     */
+    private int findSlot(Object key, int h) {
+        int i = h & mask;
+        while (keys[i] != null) {
+            if (hashes[i] == h && key.equals(keys[i])) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1 - i;
+    }
+
+    @Override
+    public void clear() {
+        createTable(keys.length);
+        numElements = 0;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return findSlot(key, hash(key)) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int slot = findSlot(key, hash(key));
+        return slot >= 0 ? (V) values[slot] : null;
+    }
+
+    @Override
+    public int size() {
+        return numElements;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        int h = hash(key);
+        int slot = findSlot(key, h);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+        slot = -1 - slot;
+        keys[slot] = key;
+        values[slot] = value;
+        hashes[slot] = h;
+        numElements += 1;
+        if (numElements > threshold) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /** Moves every entry into new backing arrays of tableSize slots. */
+    private void resize(int tableSize) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        createTable(tableSize);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int j = oldHashes[i] & mask;
+                while (keys[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+                hashes[j] = oldHashes[i];
+            }
+        }
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> result = new HashSet<>();
+        for (K key : this) {
+            result.add(key);
+        }
+        return result;
+    }
+
+    @Override
+    public V remove(K key) {
+        int slot = findSlot(key, hash(key));
+        if (slot < 0) {
+            return null;
+        }
+        return removeSlot(slot);
+    }
+
+    @Override
+    public V remove(K key, V value) {
+        int slot = findSlot(key, hash(key));
+        if (slot < 0 || values[slot] != value) {
+            return null;
+        }
+        return removeSlot(slot);
+    }
+
+    /**
+     * Empties the occupied slot and returns its value. Later entries of the
+     * same probe run are shifted back so that every remaining key is still
+     * reachable from its home slot without passing an empty slot.
+     */
+    @SuppressWarnings("unchecked")
+    private V removeSlot(int slot) {
+        V value = (V) values[slot];
+        int hole = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            if (keys[i] == null) {
+                break;
+            }
+            int home = hashes[i] & mask;
+            /* The entry at i may stay put iff its home lies cyclically in (hole, i]. */
+            boolean reachable = hole <= i
+                    ? hole < home && home <= i
+                    : hole < home || home <= i;
+            if (!reachable) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hashes[hole] = hashes[i];
+                hole = i;
+            }
+        }
+        keys[hole] = null;
+        values[hole] = null;
+        numElements -= 1;
+        return value;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new MyProbingHashMapIterator();
+    }
+
+    private class MyProbingHashMapIterator implements Iterator<K> {
+        private int pos;
+
+        MyProbingHashMapIterator() {
+            pos = nextOccupied(0);
+        }
+
+        /** Returns the first occupied slot at or after i, or keys.length. */
+        private int nextOccupied(int i) {
+            while (i < keys.length && keys[i] == null) {
+                i += 1;
+            }
+            return i;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pos < keys.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            K key = (K) keys[pos];
+            pos = nextOccupied(pos + 1);
+            return key;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/** Tests of the thread-safe ConcurrentMyHashMap. */
+public class TestConcurrentMyHashMap {
+
+    @Test
+    public void sanityPutGetSizeTest() {
+        TestMyProbingHashMap.sanityPutGetSizeTest(new ConcurrentMyHashMap<>());
+    }
+
+    @Test
+    public void randomizedAgainstHashMapTest() {
+        /* One small segment, so the single table resizes many times. */
+        TestMyProbingHashMap.randomizedAgainstHashMapTest(new ConcurrentMyHashMap<>(1, 0.75, 1));
+    }
+
+    @Test
+    public void iteratorRemoveTest() {
+        ConcurrentMyHashMap<String, Integer> b = new ConcurrentMyHashMap<>();
+        b.put("a", 1);
+        b.put("b", 2);
+        Iterator<String> it = b.iterator();
+        try {
+            it.remove();
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        String removed = it.next();
+        it.remove();
+        assertEquals(1, b.size());
+        assertFalse(b.containsKey(removed));
+        String kept = it.next();
+        assertTrue(b.containsKey(kept));
+        assertFalse(it.hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void hugeConcurrencyLevelTest() {
+        new ConcurrentMyHashMap<String, Integer>(16, 0.75, (1 << 30) + 1);
+    }
+
+    @Test
+    public void concurrentWritersTest() throws InterruptedException {
+        ConcurrentMyHashMap<Integer, Integer> map = new ConcurrentMyHashMap<>(4, 0.75, 4);
+        int numThreads = 8;
+        int perThread = 20000;
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            int base = t * perThread;
+            threads[t] = new Thread(() -> {
+                for (int i = base; i < base + perThread; i++) {
+                    map.put(i, i);
+                }
+                for (int i = base; i < base + perThread; i += 2) {
+                    map.remove(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(numThreads * perThread / 2, map.size());
+        for (int i = 0; i < numThreads * perThread; i++) {
+            assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), map.get(i));
+        }
+    }
+
+    @Test
+    public void readersSeeStableKeysDuringResizeTest() throws InterruptedException {
+        ConcurrentMyHashMap<Integer, Integer> map = new ConcurrentMyHashMap<>(2, 0.75, 2);
+        int stable = 1000;
+        for (int i = 0; i < stable; i++) {
+            map.put(i, i);
+        }
+        AtomicBoolean failed = new AtomicBoolean(false);
+        AtomicBoolean done = new AtomicBoolean(false);
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                for (int i = 0; i < stable; i++) {
+                    Integer value = map.get(i);
+                    if (value == null || value != i) {
+                        failed.set(true);
+                    }
+                }
+            }
+        });
+        reader.start();
+        for (int i = stable; i < 200000; i++) {
+            map.put(i, i);
+        }
+        done.set(true);
+        reader.join();
+        assertFalse(failed.get());
+    }
+}
@@ -158,4 +158,19 @@ public class TestMyHashMap {
         assertEquals(345, studentIDs.get("evil alan").intValue());
         assertEquals(studentIDs.get("evil alan"), studentIDs.get("alan"));
     }
+
+    // Same checks with resizes spread across later updates.
+    @Test
+    public void incrementalResizeTest() {
+        sanityClearTest(new MyHashMap<>(4, 0.75, true));
+        sanitySizeTest(new MyHashMap<>(4, 0.75, true));
+        sanityKeySetTest(new MyHashMap<>(4, 0.75, true));
+        functionalityTest(new MyHashMap<>(4, 0.75, true), new MyHashMap<>(4, 0.75, true));
+    }
+
+    @Test
+    public void randomizedAgainstHashMapTest() {
+        TestMyProbingHashMap.randomizedAgainstHashMapTest(new MyHashMap<>(2, 0.75, false));
+        TestMyProbingHashMap.randomizedAgainstHashMapTest(new MyHashMap<>(2, 0.75, true));
+    }
 }
@@ -0,0 +1,163 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/** Tests of the open-addressing MyProbingHashMap. */
+public class TestMyProbingHashMap {
+
+    /** A key whose hash code is chosen by the test, to force collisions. */
+    private static class CollidingKey {
+        private final String name;
+        private final int hash;
+
+        CollidingKey(String name, int hash) {
+            this.name = name;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && name.equals(((CollidingKey) o).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    public void sanityPutGetSizeTest() {
+        sanityPutGetSizeTest(new MyProbingHashMap<>());
+    }
+
+    /** Checks put, get, size, iteration and clear on the empty map b. */
+    public static void sanityPutGetSizeTest(Map61B<String, Integer> b) {
+        assertEquals(0, b.size());
+        assertNull(b.get("starChild"));
+        for (int i = 0; i < 455; i++) {
+            b.put("hi" + i, i);
+            assertTrue(b.containsKey("hi" + i));
+            assertEquals(i, (int) b.get("hi" + i));
+        }
+        assertEquals(455, b.size());
+        b.put("hi0", 100);
+        assertEquals(455, b.size());
+        assertEquals(100, (int) b.get("hi0"));
+
+        Set<String> keys = new HashSet<>();
+        for (String key : b) {
+            keys.add(key);
+        }
+        assertEquals(b.keySet(), keys);
+        assertEquals(455, keys.size());
+
+        b.clear();
+        assertEquals(0, b.size());
+        assertFalse(b.containsKey("hi0"));
+    }
+
+    @Test
+    public void keySetAndIteratorTest() {
+        MyProbingHashMap<String, Integer> b = new MyProbingHashMap<>();
+        Set<String> values = new HashSet<>();
+        for (int i = 0; i < 455; i++) {
+            b.put("hi" + i, 1);
+            values.add("hi" + i);
+        }
+        assertEquals(values, b.keySet());
+        Set<String> iterated = new HashSet<>();
+        for (String key : b) {
+            assertTrue(iterated.add(key));
+        }
+        assertEquals(values, iterated);
+    }
+
+    @Test
+    public void removeWithinProbeRunTest() {
+        /* Keys a, b, c share a home slot; d's home is the slot b lands in. */
+        MyProbingHashMap<CollidingKey, String> q = new MyProbingHashMap<>(16);
+        CollidingKey a = new CollidingKey("a", 1);
+        CollidingKey b = new CollidingKey("b", 1);
+        CollidingKey c = new CollidingKey("c", 1);
+        CollidingKey d = new CollidingKey("d", 2);
+        q.put(a, "a");
+        q.put(b, "b");
+        q.put(c, "c");
+        q.put(d, "d");
+        assertEquals("a", q.remove(a));
+        assertFalse(q.containsKey(a));
+        assertEquals("b", q.get(b));
+        assertEquals("c", q.get(c));
+        assertEquals("d", q.get(d));
+        assertEquals("c", q.remove(c));
+        assertEquals("b", q.get(b));
+        assertEquals("d", q.get(d));
+        assertEquals(2, q.size());
+        assertNull(q.remove(c));
+    }
+
+    @Test
+    public void removeWrapsAroundTableTest() {
+        /* All keys start probing at the last slot and wrap to slot 0. */
+        MyProbingHashMap<CollidingKey, Integer> q = new MyProbingHashMap<>(8);
+        CollidingKey[] keys = new CollidingKey[4];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new CollidingKey("k" + i, 7);
+            q.put(keys[i], i);
+        }
+        assertEquals(0, (int) q.remove(keys[0]));
+        for (int i = 1; i < keys.length; i++) {
+            assertEquals(i, (int) q.get(keys[i]));
+        }
+        assertNull(q.remove(keys[2], 5));
+        assertEquals(2, (int) q.remove(keys[2], q.get(keys[2])));
+        assertEquals(1, (int) q.get(keys[1]));
+        assertEquals(3, (int) q.get(keys[3]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void hugeInitialSizeTest() {
+        new MyProbingHashMap<String, Integer>((1 << 30) + 1);
+    }
+
+    @Test
+    public void randomizedAgainstHashMapTest() {
+        randomizedAgainstHashMapTest(new MyProbingHashMap<>(4));
+    }
+
+    /** Runs random puts and removes on the empty map ours and on a
+     *  java.util.HashMap, checking that the two always agree. */
+    public static void randomizedAgainstHashMapTest(Map61B<Integer, Integer> ours) {
+        Random r = new Random(61);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 50000; i++) {
+            int key = r.nextInt(2000);
+            int op = r.nextInt(4);
+            if (op == 0) {
+                assertEquals(expected.remove(key), ours.remove(key));
+            } else if (op == 1) {
+                Integer value = expected.get(key);
+                assertEquals(value, ours.remove(key, value));
+                expected.remove(key);
+            } else {
+                /* Box once: remove(key, value) may compare values with ==. */
+                Integer value = i;
+                ours.put(key, value);
+                expected.put(key, value);
+            }
+            assertEquals(expected.size(), ours.size());
+        }
+        for (int key = 0; key < 2000; key++) {
+            assertEquals(expected.get(key), ours.get(key));
+        }
+        assertEquals(expected.keySet(), ours.keySet());
+    }
+}
@@ -0,0 +1,119 @@
+package speed;
+
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import hashmap.ConcurrentMyHashMap;
+
+/** Measures the throughput of ConcurrentMyHashMap against Java's
+ *  ConcurrentHashMap with several threads sharing one map, for a
+ *  read-heavy (95% get / 5% put) and a write-heavy (50% / 50%) mix.
+ */
+public class ConcurrentSpeedTest {
+    /** Thread counts to test. */
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    /** Number of distinct keys the operations are spread over. */
+    private static final int NUM_KEYS = 1 << 16;
+
+    /**
+     * Requests user input and prints millions of operations per second for
+     * each map, mix and thread count. ARGS is unused.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Scanner input = new Scanner(System.in);
+        String[] keys = new String[NUM_KEYS];
+        for (int i = 0; i < NUM_KEYS; i++) {
+            keys[i] = StringUtils.randomString(10);
+        }
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # operations per thread: ");
+            int N = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+            System.out.printf("%-30s %-8s", "map (Mops/sec)", "mix");
+            for (int t : THREADS) {
+                System.out.printf(" %8s", t + " thr");
+            }
+            System.out.println();
+            for (int putPercent : new int[] {5, 50}) {
+                String mix = (100 - putPercent) + "/" + putPercent;
+                ConcurrentMyHashMap<String, Integer> ours = new ConcurrentMyHashMap<>();
+                printRow("ConcurrentMyHashMap", mix,
+                        ours::get, ours::put, keys, N, putPercent);
+                ConcurrentHashMap<String, Integer> theirs = new ConcurrentHashMap<>();
+                printRow("Java's ConcurrentHashMap", mix,
+                        theirs::get, theirs::put, keys, N, putPercent);
+            }
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /**
+     * Prints one result line, for one map and mix across all thread counts.
+     * An untimed pass first lets the JIT compile this map's code paths, so
+     * the 1-thread column is not charged for the warm-up.
+     */
+    private static void printRow(String name, String mix,
+                                 Function<String, Integer> get,
+                                 BiConsumer<String, Integer> put,
+                                 String[] keys, int N, int putPercent)
+            throws InterruptedException {
+        for (String key : keys) {
+            put.accept(key, 0);
+        }
+        runThreads(get, put, keys, 1, N, putPercent);
+        System.out.printf("%-30s %-8s", name, mix);
+        for (int t : THREADS) {
+            double seconds = runThreads(get, put, keys, t, N, putPercent);
+            System.out.printf(" %8.2f", (double) t * N / seconds / 1e6);
+        }
+        System.out.println();
+    }
+
+    /**
+     * Starts numThreads threads that each perform N random operations on
+     * keys, putPercent percent of them puts and the rest gets, and returns
+     * the number of seconds until all of them finish.
+     */
+    public static double runThreads(Function<String, Integer> get,
+                                    BiConsumer<String, Integer> put,
+                                    String[] keys, int numThreads, int N,
+                                    int putPercent) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            threads[t] = new Thread(() -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < N; i++) {
+                    String key = keys[r.nextInt(keys.length)];
+                    if (r.nextInt(100) < putPercent) {
+                        put.accept(key, i);
+                    } else {
+                        get.apply(key);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return (System.nanoTime() - begin) / 1e9;
+    }
+}
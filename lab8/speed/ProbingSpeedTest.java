@@ -0,0 +1,123 @@
+package speed;
+
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Scanner;
+import java.util.function.Supplier;
+
+import hashmap.Map61B;
+import hashmap.MyHashMapALBuckets;
+import hashmap.MyHashMapLLBuckets;
+import hashmap.MyHashMapTSBuckets;
+import hashmap.MyHashMapHSBuckets;
+import hashmap.MyHashMapPQBuckets;
+import hashmap.MyProbingHashMap;
+
+/** Compares put/get time and memory per entry of the open-addressing
+ *  MyProbingHashMap against the five bucket variants of MyHashMap.
+ */
+public class ProbingSpeedTest {
+    /**
+     * Requests user input and times each map implementation on the same
+     * random keys. ARGS is unused.
+     */
+    public static void main(String[] args) {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("\n This program puts, then gets, random "
+                + "Strings of length L\n"
+                + " in different types of maps "
+                + "as <String, Integer> pairs.\n");
+        System.out.print("What would you like L to be?: ");
+        int L = BucketsSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # strings to insert into each map: ");
+            int N = BucketsSpeedTest.waitForPositiveInt(input);
+            String[] keys = new String[N];
+            Integer[] values = new Integer[N];
+            for (int i = 0; i < N; i++) {
+                keys[i] = StringUtils.randomString(L);
+                values[i] = i;
+            }
+            /* randomString may repeat a key, so count the distinct ones. */
+            int distinct = new HashSet<>(Arrays.asList(keys)).size();
+
+            System.out.printf("%-30s %10s %10s %12s%n",
+                    "map", "put (sec)", "get (sec)", "bytes/entry");
+            timeMap61B(MyHashMapALBuckets::new, keys, values, distinct);
+            timeMap61B(MyHashMapLLBuckets::new, keys, values, distinct);
+            timeMap61B(MyHashMapTSBuckets::new, keys, values, distinct);
+            timeMap61B(MyHashMapHSBuckets::new, keys, values, distinct);
+            timeMap61B(MyHashMapPQBuckets::new, keys, values, distinct);
+            timeMap61B(MyProbingHashMap::new, keys, values, distinct);
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /**
+     * Puts every (keys[i], values[i]) pair into a fresh map from maker, then
+     * gets every key back, and prints both times along with the bytes the
+     * map retains per entry. The heap is measured with the map reachable
+     * and again after dropping it, so keys, values and anything left over
+     * from earlier maps cancel out and only the map's own structures are
+     * counted. Use a large N (say 10^5 or more) to keep the noise small.
+     * DISTINCT is the number of different Strings in keys.
+     */
+    public static void timeMap61B(Supplier<Map61B<String, Integer>> maker,
+                                  String[] keys, Integer[] values, int distinct) {
+        Map61B<String, Integer> map = maker.get();
+        String name = map.getClass().getSimpleName();
+
+        Stopwatch sw = new Stopwatch();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], values[i]);
+        }
+        double putTime = sw.elapsedTime();
+
+        sw = new Stopwatch();
+        long found = 0;
+        for (String key : keys) {
+            if (map.get(key) != null) {
+                found += 1;
+            }
+        }
+        double getTime = sw.elapsedTime();
+
+        long withMap = usedMemory();
+        /* Using map after the measurement keeps the JIT from treating it
+         * as dead, and collecting it, during usedMemory(). */
+        int size = map.size();
+        map = null;
+        long bytes = withMap - usedMemory();
+        if (found != keys.length || size != distinct) {
+            throw new IllegalStateException(name + " lost keys");
+        }
+        System.out.printf("%-30s %10.2f %10.2f %12.1f%n",
+                name, putTime, getTime, (double) bytes / distinct);
+    }
+
+    /**
+     * Returns the number of bytes in use on the heap, collecting garbage
+     * until that number stops going down.
+     */
+    private static long usedMemory() {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 20; i++) {
+            System.gc();
+            long now = rt.totalMemory() - rt.freeMemory();
+            if (now >= used) {
+                break;
+            }
+            used = now;
+        }
+        return used;
+    }
+}
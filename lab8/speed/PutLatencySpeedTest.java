@@ -0,0 +1,91 @@
+package speed;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Scanner;
+
+import hashmap.MyHashMap;
+
+/** Measures the latency of individual put calls, to show the pauses caused
+ *  by resizing. Compares MyHashMap with all-at-once and incremental
+ *  resizing against Java's HashMap.
+ */
+public class PutLatencySpeedTest {
+    /**
+     * Requests user input and reports put latency percentiles for each map.
+     * ARGS is unused.
+     */
+    public static void main(String[] args) {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("\n This program inserts random "
+                + "Strings of length L\n"
+                + " Into different types of maps "
+                + "as <String, Integer> pairs\n"
+                + " and times every single put.\n");
+        System.out.print("What would you like L to be?: ");
+        int L = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # strings to insert into each map: ");
+            int N = InsertRandomSpeedTest.waitForPositiveInt(input);
+            String[] keys = new String[N];
+            for (int i = 0; i < N; i++) {
+                keys[i] = StringUtils.randomString(L);
+            }
+
+            System.out.printf("%-26s %10s %10s %10s %10s %10s%n", "map (usec)",
+                    "total", "p50", "p99", "p999", "max");
+            report("MyHashMap", timePuts(new MyHashMap<>(16, 0.75, false), keys));
+            report("MyHashMap (incremental)", timePuts(new MyHashMap<>(16, 0.75, true), keys));
+            report("Java's Built-in HashMap", timePuts(new HashMap<>(), keys));
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /** Puts every key into map and returns the time of each put in nanoseconds. */
+    public static long[] timePuts(MyHashMap<String, Integer> map, String[] keys) {
+        long[] times = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            long start = System.nanoTime();
+            map.put(keys[i], i);
+            times[i] = System.nanoTime() - start;
+        }
+        return times;
+    }
+
+    /** Puts every key into hashMap and returns the time of each put in nanoseconds. */
+    public static long[] timePuts(HashMap<String, Integer> hashMap, String[] keys) {
+        long[] times = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            long start = System.nanoTime();
+            hashMap.put(keys[i], i);
+            times[i] = System.nanoTime() - start;
+        }
+        return times;
+    }
+
+    /** Prints the total and the percentiles of the put times in times. */
+    private static void report(String name, long[] times) {
+        long total = 0;
+        for (long t : times) {
+            total += t;
+        }
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-26s %10.0f %10.2f %10.2f %10.2f %10.2f%n", name,
+                total / 1e3, percentile(sorted, 0.5) / 1e3,
+                percentile(sorted, 0.99) / 1e3, percentile(sorted, 0.999) / 1e3,
+                sorted[sorted.length - 1] / 1e3);
+    }
+
+    /** Returns the p-th quantile of the sorted array sorted. */
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(index, 0)];
+    }
+}
@@ -1,22 +1,33 @@
 package gitlet;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
-import java.util.Formatter;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 
 /** Assorted utilities.
@@ -33,28 +44,85 @@ class Utils {
 
     /* SHA-1 HASH VALUES. */
 
+    /** Size of the buffer used to hash files in pieces. */
+    private static final int IO_BUFFER_SIZE = 1 << 18;
+
+    /** Hexadecimal digits, indexed by value. */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /** Per-thread SHA-1 digest, so that hashing does not look up a
+     *  provider on every call. */
+    private static final ThreadLocal<MessageDigest> SHA1_DIGEST =
+        ThreadLocal.withInitial(() -> {
+            try {
+                return MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException excp) {
+                throw new IllegalArgumentException("System does not support SHA-1");
+            }
+        });
+
+    /** Per-thread direct buffer used when hashing files. */
+    private static final ThreadLocal<ByteBuffer> HASH_BUFFER =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(IO_BUFFER_SIZE));
+
+    /** Returns this thread's SHA-1 digest, reset and ready for use. */
+    private static MessageDigest sha1Digest() {
+        MessageDigest md = SHA1_DIGEST.get();
+        md.reset();
+        return md;
+    }
+
+    /** Returns BYTES as a lower-case hexadecimal numeral. */
+    private static String toHex(byte[] bytes) {
+        char[] result = new char[2 * bytes.length];
+        for (int i = 0; i < bytes.length; i += 1) {
+            result[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+            result[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xf];
+        }
+        return new String(result);
+    }
+
     /** Returns the SHA-1 hash of the concatenation of VALS, which may
      *  be any mixture of byte arrays and Strings. */
     static String sha1(Object... vals) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-1");
-            for (Object val : vals) {
-                if (val instanceof byte[]) {
-                    md.update((byte[]) val);
-                } else if (val instanceof String) {
-                    md.update(((String) val).getBytes(StandardCharsets.UTF_8));
-                } else {
-                    throw new IllegalArgumentException("improper type to sha1");
-                }
+        MessageDigest md = sha1Digest();
+        for (Object val : vals) {
+            if (val instanceof byte[]) {
+                md.update((byte[]) val);
+            } else if (val instanceof String) {
+                md.update(((String) val).getBytes(StandardCharsets.UTF_8));
+            } else {
+                throw new IllegalArgumentException("improper type to sha1");
             }
-            Formatter result = new Formatter();
-            for (byte b : md.digest()) {
-                result.format("%02x", b);
+        }
+        return toHex(md.digest());
+    }
+
+    /** Returns the SHA-1 hash of the contents of FILE, which must be a
+     *  normal file.  The result is the same as sha1(readContents(FILE)),
+     *  but FILE is read in pieces, so memory use does not depend on its
+     *  size.  FILE is read through a reused direct buffer rather than
+     *  mapped, since a mapping is only released when the garbage
+     *  collector gets to it.  Throws IllegalArgumentException in case of
+     *  problems. */
+    static String sha1(File file) {
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("must be a normal file");
+        }
+        MessageDigest md = sha1Digest();
+        try (FileChannel in = FileChannel.open(file.toPath(),
+                                               StandardOpenOption.READ)) {
+            ByteBuffer buffer = HASH_BUFFER.get();
+            buffer.clear();
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                md.update(buffer);
+                buffer.clear();
             }
-            return result.toString();
-        } catch (NoSuchAlgorithmException excp) {
-            throw new IllegalArgumentException("System does not support SHA-1");
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
         }
+        return toHex(md.digest());
     }
 
     /** Returns the SHA-1 hash of the concatenation of the strings in
@@ -104,6 +172,27 @@ class Utils {
         }
     }
 
+    /** Return the entire contents of FILE as a read-only ByteBuffer that is
+     *  mapped from the file rather than copied onto the heap, so that
+     *  callers that need only part of a large file, such as a header, read
+     *  only that part.  FILE must be a normal file of less than 2GB, and
+     *  should not be changed while the result is in use.  Throws
+     *  IllegalArgumentException in case of problems. */
+    static ByteBuffer mapContents(File file) {
+        if (!file.isFile()) {
+            throw new IllegalArgumentException("must be a normal file");
+        }
+        try (FileChannel in = FileChannel.open(file.toPath(),
+                                               StandardOpenOption.READ)) {
+            if (in.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("file too large to map");
+            }
+            return in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
     /** Return the entire contents of FILE as a String.  FILE must
      *  be a normal file.  Throws IllegalArgumentException
      *  in case of problems. */
@@ -113,16 +202,74 @@ class Utils {
 
     /** Write the result of concatenating the bytes in CONTENTS to FILE,
      *  creating or overwriting it as needed.  Each object in CONTENTS may be
-     *  either a String or a byte array.  Throws IllegalArgumentException
-     *  in case of problems. */
+     *  either a String or a byte array.  FILE is overwritten in place, which
+     *  suits working-directory files; use writeContentsAtomically for
+     *  files under .gitlet.  Throws IllegalArgumentException in case of
+     *  problems. */
     static void writeContents(File file, Object... contents) {
         try {
-            if (file.isDirectory()) {
-                throw
-                    new IllegalArgumentException("cannot overwrite directory");
-            }
+            writeInPlace(file, contentsWriter(contents));
+        } catch (IOException | ClassCastException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** As for writeContents, but FILE is replaced atomically: it holds
+     *  either its old or its new contents, even after a crash.  Meant for
+     *  objects and refs under .gitlet, since each call forces data to disk
+     *  and, after a crash, may leave a temporary file named
+     *  .NAME.HEX.tmp next to FILE.  Throws IllegalArgumentException in
+     *  case of problems. */
+    static void writeContentsAtomically(File file, Object... contents) {
+        try {
+            writeAtomically(file, contentsWriter(contents));
+        } catch (IOException | ClassCastException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Copy the contents of the normal file SOURCE to FILE, creating or
+     *  overwriting it in place as needed.  SOURCE is transferred directly
+     *  between the two files rather than read into memory, so this works
+     *  for files of any size.  Throws IllegalArgumentException in case of
+     *  problems. */
+    static void copyContents(File source, File file) {
+        if (!source.isFile()) {
+            throw new IllegalArgumentException("must be a normal file");
+        }
+        try {
+            writeInPlace(file, transferWriter(source));
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** As for copyContents, but FILE is replaced atomically, as for
+     *  writeContentsAtomically.  Meant for storing blobs under .gitlet.
+     *  Throws IllegalArgumentException in case of problems. */
+    static void copyContentsAtomically(File source, File file) {
+        if (!source.isFile()) {
+            throw new IllegalArgumentException("must be a normal file");
+        }
+        try {
+            writeAtomically(file, transferWriter(source));
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Something that writes the new contents of a file. */
+    private interface ContentWriter {
+        /** Write the contents to OUT, starting at its current position. */
+        void writeTo(FileChannel out) throws IOException;
+    }
+
+    /** Returns a ContentWriter for the concatenation of CONTENTS, each a
+     *  String or a byte array. */
+    private static ContentWriter contentsWriter(Object... contents) {
+        return out -> {
             BufferedOutputStream str =
-                new BufferedOutputStream(Files.newOutputStream(file.toPath()));
+                new BufferedOutputStream(Channels.newOutputStream(out));
             for (Object obj : contents) {
                 if (obj instanceof byte[]) {
                     str.write((byte[]) obj);
@@ -130,31 +277,96 @@ class Utils {
                     str.write(((String) obj).getBytes(StandardCharsets.UTF_8));
                 }
             }
-            str.close();
-        } catch (IOException | ClassCastException excp) {
-            throw new IllegalArgumentException(excp.getMessage());
+            str.flush();
+        };
+    }
+
+    /** Returns a ContentWriter that transfers the contents of SOURCE
+     *  without reading them into memory. */
+    private static ContentWriter transferWriter(File source) {
+        return out -> {
+            try (FileChannel in = FileChannel.open(source.toPath(),
+                                                   StandardOpenOption.READ)) {
+                long size = in.size();
+                for (long pos = 0; pos < size; ) {
+                    long n = in.transferTo(pos, size - pos, out);
+                    if (n <= 0) {
+                        throw new IOException("file changed while copying");
+                    }
+                    pos += n;
+                }
+            }
+        };
+    }
+
+    /** Truncate FILE (creating it if needed) and write the bytes produced
+     *  by WRITER into it. */
+    private static void writeInPlace(File file, ContentWriter writer)
+        throws IOException {
+        if (file.isDirectory()) {
+            throw new IllegalArgumentException("cannot overwrite directory");
+        }
+        try (FileChannel out = FileChannel.open(file.toPath(),
+                 StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                 StandardOpenOption.TRUNCATE_EXISTING)) {
+            writer.writeTo(out);
+        }
+    }
+
+    /** Replace FILE with the bytes produced by WRITER.  They are written
+     *  to a temporary file in the same directory, forced to disk, and
+     *  then renamed over FILE, so that a crash or a concurrent reader
+     *  never sees a partially written FILE. */
+    private static void writeAtomically(File file, ContentWriter writer)
+        throws IOException {
+        if (file.isDirectory()) {
+            throw new IllegalArgumentException("cannot overwrite directory");
+        }
+        Path target = file.toPath().toAbsolutePath();
+        Path temp = target.resolveSibling(String.format(".%s.%x.tmp",
+            target.getFileName(), ThreadLocalRandom.current().nextLong()));
+        try {
+            try (FileChannel out = FileChannel.open(temp,
+                     StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                writer.writeTo(out);
+                out.force(true);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+                           StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException excp) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        syncDirectory(target.getParent());
+    }
+
+    /** Force the entries of directory DIR to disk, so that a rename into
+     *  DIR survives a crash.  Does nothing on systems (such as Windows)
+     *  that cannot open a directory for this. */
+    private static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir,
+                                                    StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException excp) {
+            /* Directory sync is best effort. */
         }
     }
 
     /** Return an object of type T read from FILE, casting it to EXPECTEDCLASS.
-     *  Throws IllegalArgumentException in case of problems. */
+     *  FILE may have been written compressed or uncompressed by
+     *  writeObject.  Throws IllegalArgumentException in case of problems. */
     static <T extends Serializable> T readObject(File file,
                                                  Class<T> expectedClass) {
-        try {
-            ObjectInputStream in =
-                new ObjectInputStream(new FileInputStream(file));
-            T result = expectedClass.cast(in.readObject());
-            in.close();
-            return result;
-        } catch (IOException | ClassCastException
-                 | ClassNotFoundException excp) {
-            throw new IllegalArgumentException(excp.getMessage());
-        }
+        return deserialize(decompress(readContents(file)), expectedClass);
     }
 
-    /** Write OBJ to FILE. */
+    /** Write OBJ to FILE, compressed if that makes it smaller.  FILE is
+     *  replaced atomically, as for writeContentsAtomically. */
     static void writeObject(File file, Serializable obj) {
-        writeContents(file, serialize(obj));
+        writeContentsAtomically(file, compress(serialize(obj)));
     }
 
     /* DIRECTORIES */
@@ -188,6 +400,25 @@ class Utils {
         return plainFilenamesIn(new File(dir));
     }
 
+    /** Returns the unique UID in UIDS that begins with PREFIX, or null if
+     *  there is none.  UIDS must be in lexicographic order, as returned by
+     *  plainFilenamesIn, so that this takes time logarithmic in its size.
+     *  Throws a GitletException if more than one UID begins with PREFIX. */
+    static String findUid(List<String> uids, String prefix) {
+        int i = Collections.binarySearch(uids, prefix);
+        if (i >= 0) {
+            return uids.get(i);
+        }
+        i = -i - 1;
+        if (i == uids.size() || !uids.get(i).startsWith(prefix)) {
+            return null;
+        }
+        if (i + 1 < uids.size() && uids.get(i + 1).startsWith(prefix)) {
+            throw error("Ambiguous id %s.", prefix);
+        }
+        return uids.get(i);
+    }
+
     /* OTHER FILE UTILITIES */
 
     /** Return the concatentation of FIRST and OTHERS into a File designator,
@@ -220,7 +451,109 @@ class Utils {
         }
     }
 
+    /* OBJECT COMPRESSION */
+
+    /** Codec byte starting an object stored with Deflate compression.  It
+     *  is followed by the uncompressed length as 4 bytes, big-endian, and
+     *  then the compressed data.  Objects stored without compression have
+     *  no codec byte; they begin with the serialization stream magic
+     *  number, whose first byte is never OBJECT_DEFLATE. */
+    private static final byte OBJECT_DEFLATE = 1;
+
+    /** Length of the header of a compressed object. */
+    private static final int OBJECT_HEADER_LENGTH = 5;
+
+    /** Serialized objects shorter than this are never worth compressing. */
+    private static final int MIN_COMPRESSED_LENGTH = 256;
+
+    /** Deflate never expands data by more than this factor, so a header
+     *  claiming a larger uncompressed length is corrupt. */
+    private static final long MAX_DEFLATE_RATIO = 1032;
+
+    /** Per-thread Deflater, reset before each use.  Pooled, like
+     *  SHA1_DIGEST, since each one holds native zlib state that is costly
+     *  to set up. */
+    private static final ThreadLocal<Deflater> DEFLATER =
+        ThreadLocal.withInitial(Deflater::new);
 
+    /** Per-thread Inflater, reset before each use. */
+    private static final ThreadLocal<Inflater> INFLATER =
+        ThreadLocal.withInitial(Inflater::new);
+
+    /** Returns the stored form of the serialized object DATA: Deflate
+     *  compressed with a header if DATA is long enough and that saves
+     *  space, and DATA itself otherwise. */
+    static byte[] compress(byte[] data) {
+        if (data.length < MIN_COMPRESSED_LENGTH) {
+            return data;
+        }
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] result = new byte[data.length];
+        int n = OBJECT_HEADER_LENGTH;
+        while (!deflater.finished() && n < result.length) {
+            n += deflater.deflate(result, n, result.length - n);
+        }
+        if (!deflater.finished()) {
+            return data;
+        }
+        ByteBuffer.wrap(result).put(OBJECT_DEFLATE).putInt(data.length);
+        return Arrays.copyOf(result, n);
+    }
+
+    /** Returns the serialized object stored as DATA by compress.  Throws
+     *  IllegalArgumentException if DATA is corrupt. */
+    static byte[] decompress(byte[] data) {
+        if (data.length == 0 || data[0] != OBJECT_DEFLATE) {
+            return data;
+        }
+        if (data.length < OBJECT_HEADER_LENGTH) {
+            throw new IllegalArgumentException("truncated object header");
+        }
+        int length = ByteBuffer.wrap(data, 1, 4).getInt();
+        long compressedLength = data.length - OBJECT_HEADER_LENGTH;
+        if (length < 0 || length > compressedLength * MAX_DEFLATE_RATIO) {
+            throw new IllegalArgumentException("corrupt compressed object");
+        }
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        try {
+            inflater.setInput(data, OBJECT_HEADER_LENGTH,
+                              (int) compressedLength);
+            byte[] result = new byte[length];
+            int n = 0;
+            while (n < result.length && !inflater.finished()) {
+                int k = inflater.inflate(result, n, result.length - n);
+                if (k == 0 && (inflater.needsInput()
+                               || inflater.needsDictionary())) {
+                    break;
+                }
+                n += k;
+            }
+            if (n != result.length || !inflater.finished()) {
+                throw new IllegalArgumentException("corrupt compressed object");
+            }
+            return result;
+        } catch (DataFormatException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
+
+    /** Return an object of type T deserialized from BYTES, casting it to
+     *  EXPECTEDCLASS.  Throws IllegalArgumentException in case of
+     *  problems. */
+    static <T extends Serializable> T deserialize(byte[] bytes,
+                                                  Class<T> expectedClass) {
+        try (ObjectInputStream in =
+                 new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return expectedClass.cast(in.readObject());
+        } catch (IOException | ClassCastException
+                 | ClassNotFoundException excp) {
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+    }
 
     /* MESSAGES AND ERROR REPORTING */
 